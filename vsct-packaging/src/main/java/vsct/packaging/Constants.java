@@ -12,6 +12,16 @@ public abstract class Constants {
 	 */
 	public static final int MAX_SIZE = 10;
 	
+	/**
+	 * Ici on a le coût d'un paquet de taille {@link #MAX_SIZE} (type de paquet par défaut).
+	 */
+	public static final int DEFAULT_COST = 1;
+	
+	/**
+	 * Ici on a la plus grande taille d'item possible (les items sont des digits).
+	 */
+	public static final int MAX_ITEM_SIZE = 9;
+	
 	/**
 	 * Ici on a le séparateur pour l'affichage final.s
 	 */
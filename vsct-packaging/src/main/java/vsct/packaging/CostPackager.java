@@ -0,0 +1,787 @@
+package vsct.packaging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+
+/**
+ * Classe de traitement pour un catalogue de {@link PackageType}, minimisant le coût total des paquets produits.
+ * <br /> Contrairement au {@link Packager}, on ne manipule jamais les {@link Item} un à un : l'entrée est réduite à
+ * l'histogramme des tailles d'item, et le résultat est un {@link PackingPlan} décrivant des contenus de paquets
+ * ({@link PackagePattern}) et leur nombre. Le temps de calcul ne dépend donc pas du nombre d'items.
+ * <br /> La résolution se fait en deux temps :
+ * <br /> - si l'histogramme est petit, une programmation dynamique exacte sur les histogrammes restants, où chaque
+ * étape retire le contenu d'un paquet (contenant le plus gros item restant, et complété au maximum) ;
+ * <br /> - sinon, la relaxation continue du problème est résolue par génération de colonnes (simplexe révisé, les
+ * contenus de paquets les plus rentables étant trouvés par un sac à dos en programmation dynamique), les quantités
+ * obtenues sont arrondies à l'entier inférieur et le petit reliquat est résolu par la programmation dynamique exacte
+ * si elle reste abordable, ou sinon par un paquet supplémentaire pour chaque contenu de la base à quantité fractionnaire.
+ * <br /> Dans ce second cas le coût obtenu dépasse l'optimum d'au plus un paquet (du type le plus cher) par taille
+ * d'item présente : la base compte au plus autant de contenus que de tailles, et la relaxation minore l'optimum.
+ * Si le simplexe ne converge pas, ou si l'arrondi laisse un reliquat trop gros, une {@link IllegalStateException}
+ * est levée plutôt que de retourner un plan sans cette garantie.
+ * @author rlevexie
+ *
+ */
+public class CostPackager {
+
+	/**
+	 * Tolérance pour les calculs en flottant du simplexe.
+	 */
+	private static final double EPSILON = 1e-9;
+
+	/**
+	 * Taille du buffer de lecture des fichiers d'items.
+	 */
+	private static final int READ_BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * Nombre maximal d'itérations du simplexe (garde-fou contre le cyclage).
+	 */
+	private static final int MAX_ITERATIONS = 10000;
+
+	/**
+	 * Nombre maximal d'histogrammes restants traités par la programmation dynamique exacte.
+	 */
+	private static final int EXACT_STATE_LIMIT = 200000;
+
+	/**
+	 * Nombre maximal de contenus de paquet explorés (estimé) par la programmation dynamique exacte.
+	 */
+	private static final long EXACT_WORK_LIMIT = 20000000L;
+
+	/**
+	 * Types de paquets utiles, triés par capacité croissante (et donc par coût strictement croissant).
+	 */
+	private final List<PackageType> packageTypes;
+
+	/**
+	 * Constructeur.
+	 * @param catalogue liste des types de paquets disponibles, non vide.
+	 * @throws IllegalArgumentException si le catalogue est vide ou contient un type null.
+	 */
+	public CostPackager(final List<PackageType> catalogue) throws IllegalArgumentException {
+		Assert.notNull(catalogue);
+		if (catalogue.isEmpty()) {
+			throw new IllegalArgumentException("Le catalogue de paquets ne peut être vide");
+		}
+		catalogue.forEach(Assert::notNull);
+		this.packageTypes = removeDominatedTypes(catalogue);
+	}
+
+	/**
+	 * Ne conserve que les types de paquets utiles : un type est inutile si un autre type au moins aussi grand
+	 * coûte au plus autant.
+	 * @param catalogue catalogue complet.
+	 * @return types utiles, par capacité croissante.
+	 */
+	private static List<PackageType> removeDominatedTypes(final List<PackageType> catalogue) {
+		List<PackageType> sorted = new ArrayList<>(catalogue);
+		// du plus grand au plus petit, et à capacité égale du moins cher au plus cher
+		sorted.sort(Comparator.comparingInt(PackageType::getCapacity).reversed()
+				.thenComparingInt(PackageType::getCost));
+
+		List<PackageType> returnValue = new ArrayList<>();
+		for (PackageType oneType : sorted) {
+			// un type plus petit n'est utile que s'il est strictement moins cher que tous les plus grands
+			if (returnValue.isEmpty() || oneType.getCost() < returnValue.get(0).getCost()) {
+				returnValue.add(0, oneType);
+			}
+		}
+		return returnValue;
+	}
+
+	/**
+	 * Prend en entrée l'entrée du main java initial, puis retourne le {@link PackingPlan} de coût minimal.
+	 * @param args - liste de {@link String}. Seul le premier item est parsé. Il ne doit y avoir qu'un seul item.
+	 * @return -
+	 * @throws NumberFormatException
+	 * 			si un des caractères n'est pas numérique dans la liste fournie
+	 */
+	public PackingPlan packageAll(final String[] args) throws NumberFormatException {
+		Packager.validateRaw(args);
+		return this.packageHistogram(histogram(args[0]));
+	}
+
+	/**
+	 * Convertit la chaine brute en histogramme des tailles d'item.
+	 * @param raw chaine de digits.
+	 * @return nombre d'items par taille (l'indice correspond à la taille de l'item).
+	 * @throws NumberFormatException
+	 * 			si un des caractères n'est pas numérique dans la chaine fournie
+	 */
+	public static long[] histogram(final CharSequence raw) throws NumberFormatException {
+		Assert.notNull(raw);
+		long[] returnValue = new long[Constants.MAX_ITEM_SIZE + 1];
+		for (int i = 0; i < raw.length(); i++) {
+			char oneChar = raw.charAt(i);
+			if (oneChar >= '0' && oneChar <= '9') {
+				returnValue[oneChar - '0']++;
+			} else if (Character.isDigit(oneChar)) {
+				// digits hors ascii, acceptés comme dans le Packager
+				returnValue[Character.getNumericValue(oneChar)]++;
+			} else {
+				throw new NumberFormatException("Un des items n'est pas un digit");
+			}
+		}
+		return returnValue;
+	}
+
+	/**
+	 * Convertit un fichier de digits ascii (sans séparateur) en histogramme des tailles d'item.
+	 * <br /> Le fichier est lu par blocs via un {@link FileChannel}, sans jamais être chargé en mémoire : il peut
+	 * donc porter des milliards d'items.
+	 * @param file fichier de digits.
+	 * @return nombre d'items par taille (l'indice correspond à la taille de l'item).
+	 * @throws IOException si le fichier ne peut être lu.
+	 * @throws NumberFormatException
+	 * 			si un des caractères n'est pas numérique dans le fichier fourni
+	 */
+	public static long[] histogram(final Path file) throws IOException, NumberFormatException {
+		Assert.notNull(file);
+		long[] returnValue = new long[Constants.MAX_ITEM_SIZE + 1];
+		ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			while (channel.read(buffer) >= 0) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					int oneDigit = buffer.get() - '0';
+					if (oneDigit < 0 || oneDigit > Constants.MAX_ITEM_SIZE) {
+						throw new NumberFormatException("Un des items n'est pas un digit");
+					}
+					returnValue[oneDigit]++;
+				}
+				buffer.clear();
+			}
+		}
+		return returnValue;
+	}
+
+	/**
+	 * Calcule le {@link PackingPlan} de coût minimal pour l'histogramme donné.
+	 * @param histogram nombre d'items par taille (l'indice correspond à la taille de l'item).
+	 * @return plan de packaging.
+	 * @throws IllegalArgumentException si l'histogramme est invalide, ou si un item ne rentre dans aucun type de paquet.
+	 * @throws IllegalStateException si la relaxation continue n'a pu être résolue ou arrondie (non convergence du
+	 * 			simplexe, erreur d'arrondi) : la borne sur l'écart à l'optimum ne serait plus garantie.
+	 */
+	public PackingPlan packageHistogram(final long[] histogram) throws IllegalArgumentException, IllegalStateException {
+		Assert.notNull(histogram);
+		if (histogram.length != Constants.MAX_ITEM_SIZE + 1) {
+			throw new IllegalArgumentException("L'histogramme doit porter une entrée par taille d'item");
+		}
+
+		// on ne travaille que sur les tailles présentes (hors items de taille nulle, traités à part)
+		int largestCapacity = this.packageTypes.get(this.packageTypes.size() - 1).getCapacity();
+		List<Integer> presentSizes = new ArrayList<>();
+		long totalSize = 0;
+		for (int size = 0; size < histogram.length; size++) {
+			if (histogram[size] < 0) {
+				throw new IllegalArgumentException("L'histogramme ne peut porter de nombre d'items négatif");
+			}
+			if (size > 0 && histogram[size] > 0) {
+				if (size > largestCapacity) {
+					throw new IllegalArgumentException("Un item de taille " + size + " ne rentre dans aucun type de paquet");
+				}
+				presentSizes.add(size);
+				totalSize += size * histogram[size];
+			}
+		}
+
+		int[] sizes = presentSizes.stream().mapToInt(Integer::intValue).toArray();
+		long[] demand = presentSizes.stream().mapToLong(size -> histogram[size]).toArray();
+		int[] capacities = this.capacities(totalSize);
+
+		PackingPlan returnValue = new PackingPlan();
+		if (sizes.length > 0) {
+			long[] residual = demand;
+			// programmation dynamique trop coûteuse : on passe d'abord par la relaxation continue
+			if (!this.isExactlySolvable(sizes, residual, capacities)) {
+				Relaxation relaxation = this.solveRelaxation(sizes, demand, capacities);
+				residual = this.roundDown(sizes, demand, relaxation, returnValue);
+				if (!this.isExactlySolvable(sizes, residual, capacities)) {
+					residual = this.roundUp(sizes, residual, relaxation, returnValue);
+					if (!this.isExactlySolvable(sizes, residual, capacities)) {
+						throw new IllegalStateException("Le reliquat de l'arrondi de la relaxation continue est trop gros");
+					}
+				}
+			}
+			new ExactSolver(sizes, residual, capacities).solve(returnValue);
+		}
+		this.addEmptyItems(histogram[0], returnValue);
+
+		return returnValue;
+	}
+
+	/**
+	 * Calcule la capacité utile de chaque type de paquet : un paquet ne peut jamais être rempli au delà de la taille
+	 * totale des items, les capacités sont donc bornées par celle-ci (ce qui borne la taille des tableaux de calcul).
+	 * @param totalSize taille cumulée de l'ensemble des items.
+	 * @return capacité utile de chaque type, dans l'ordre des types (croissante, mais pas strictement).
+	 */
+	private int[] capacities(final long totalSize) {
+		return this.packageTypes.stream()
+				.mapToInt(oneType -> (int) Math.min(oneType.getCapacity(), totalSize))
+				.toArray();
+	}
+
+	/**
+	 * Compte le nombre d'histogrammes inférieurs ou égaux à celui donné (produit des nombres d'items + 1).
+	 * @param counts nombre d'items par taille présente.
+	 * @return nombre d'histogrammes, borné à {@link #EXACT_STATE_LIMIT} + 1.
+	 */
+	private static long countStates(final long[] counts) {
+		long returnValue = 1;
+		for (long oneCount : counts) {
+			if (oneCount > EXACT_STATE_LIMIT) {
+				return EXACT_STATE_LIMIT + 1;
+			}
+			returnValue *= oneCount + 1;
+			if (returnValue > EXACT_STATE_LIMIT) {
+				return EXACT_STATE_LIMIT + 1;
+			}
+		}
+		return returnValue;
+	}
+
+	/**
+	 * Détermine si la programmation dynamique exacte est abordable pour l'histogramme donné.
+	 * <br /> Le travail est estimé par le nombre d'histogrammes multiplié par le nombre de contenus de paquet
+	 * explorés pour chacun d'eux : pour chaque type, toutes les quantités possibles de chaque taille sauf la plus
+	 * petite (dont la quantité est imposée par le remplissage maximal).
+	 * @param sizes tailles présentes.
+	 * @param counts nombre d'items pour chaque taille présente.
+	 * @param capacities capacité utile de chaque type de paquet.
+	 * @return true si le nombre d'histogrammes et le travail estimé restent sous leurs limites.
+	 */
+	private boolean isExactlySolvable(final int[] sizes, final long[] counts, final int[] capacities) {
+		long work = countStates(counts);
+		if (work > EXACT_STATE_LIMIT) {
+			return false;
+		}
+		int largestCapacity = capacities[capacities.length - 1];
+		work *= capacities.length;
+		for (int j = 1; j < sizes.length && work <= EXACT_WORK_LIMIT; j++) {
+			work *= Math.min(counts[j], largestCapacity / sizes[j]) + 1;
+		}
+		return work <= EXACT_WORK_LIMIT;
+	}
+
+	/**
+	 * Retourne le type de paquet le moins cher pouvant contenir la taille donnée.
+	 * @param totalSize taille cumulée des items.
+	 * @return type de paquet.
+	 */
+	private PackageType cheapestFittingType(final long totalSize) {
+		// les types sont triés par capacité et par coût croissants
+		return this.packageTypes.stream()
+				.filter(oneType -> oneType.getCapacity() >= totalSize)
+				.findFirst()
+				.orElseThrow(() -> new IllegalStateException("Aucun type de paquet ne peut contenir " + totalSize));
+	}
+
+	/**
+	 * Construit le {@link PackagePattern} correspondant au contenu donné, dans le type de paquet le moins cher.
+	 * @param sizes tailles présentes.
+	 * @param counts nombre d'items pour chaque taille présente.
+	 * @return contenu de paquet.
+	 */
+	private PackagePattern toPattern(final int[] sizes, final long[] counts) {
+		long[] itemCounts = new long[Constants.MAX_ITEM_SIZE + 1];
+		long totalSize = 0;
+		for (int i = 0; i < sizes.length; i++) {
+			itemCounts[sizes[i]] = counts[i];
+			totalSize += sizes[i] * counts[i];
+		}
+		return new PackagePattern(this.cheapestFittingType(totalSize), itemCounts);
+	}
+
+	/**
+	 * Résout la relaxation continue par génération de colonnes.
+	 * <br /> Le simplexe part de la base triviale (un item par paquet), toujours réalisable ; à chaque itération,
+	 * le contenu de paquet de coût réduit minimal est recherché pour chaque type par un sac à dos.
+	 * @param sizes tailles présentes.
+	 * @param demand nombre d'items pour chaque taille présente.
+	 * @param capacities capacité utile de chaque type de paquet.
+	 * @return base optimale et quantités associées.
+	 * @throws IllegalStateException si la relaxation n'est pas bornée ou si l'optimum n'est pas atteint en
+	 * 			{@link #MAX_ITERATIONS} itérations.
+	 */
+	private Relaxation solveRelaxation(final int[] sizes, final long[] demand, final int[] capacities) {
+		int dimension = sizes.length;
+
+		// base initiale : un paquet par item, la matrice de base est l'identité
+		double[][] inverse = new double[dimension][dimension];
+		double[] values = new double[dimension];
+		long[][] basis = new long[dimension][];
+		double[] basisCosts = new double[dimension];
+		for (int i = 0; i < dimension; i++) {
+			inverse[i][i] = 1;
+			values[i] = demand[i];
+			basis[i] = new long[dimension];
+			basis[i][i] = 1;
+			basisCosts[i] = this.cheapestFittingType(sizes[i]).getCost();
+		}
+
+		for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+			// prix duaux de chaque taille d'item
+			double[] duals = new double[dimension];
+			for (int i = 0; i < dimension; i++) {
+				for (int j = 0; j < dimension; j++) {
+					duals[j] += basisCosts[i] * inverse[i][j];
+				}
+			}
+
+			// recherche du contenu de paquet de coût réduit minimal
+			long[] entering = null;
+			double enteringCost = 0;
+			double bestReducedCost = -EPSILON;
+			for (int t = 0; t < capacities.length; t++) {
+				PackageType oneType = this.packageTypes.get(t);
+				long[] candidate = knapsack(sizes, duals, demand, capacities[t]);
+				double reducedCost = oneType.getCost();
+				for (int j = 0; j < dimension; j++) {
+					reducedCost -= duals[j] * candidate[j];
+				}
+				if (reducedCost < bestReducedCost) {
+					bestReducedCost = reducedCost;
+					entering = candidate;
+					enteringCost = oneType.getCost();
+				}
+			}
+
+			// plus aucune colonne améliorante : la relaxation est optimale
+			if (entering == null) {
+				return new Relaxation(basis, values);
+			}
+
+			// direction et test du ratio
+			double[] direction = new double[dimension];
+			for (int i = 0; i < dimension; i++) {
+				for (int j = 0; j < dimension; j++) {
+					direction[i] += inverse[i][j] * entering[j];
+				}
+			}
+			int leaving = -1;
+			double ratio = Double.POSITIVE_INFINITY;
+			for (int i = 0; i < dimension; i++) {
+				if (direction[i] > EPSILON && values[i] / direction[i] < ratio) {
+					ratio = values[i] / direction[i];
+					leaving = i;
+				}
+			}
+			if (leaving < 0) {
+				throw new IllegalStateException("La relaxation continue n'est pas bornée");
+			}
+
+			// pivot
+			double pivot = direction[leaving];
+			for (int j = 0; j < dimension; j++) {
+				inverse[leaving][j] /= pivot;
+			}
+			values[leaving] = ratio;
+			for (int i = 0; i < dimension; i++) {
+				if (i != leaving) {
+					values[i] = Math.max(0, values[i] - ratio * direction[i]);
+					for (int j = 0; j < dimension; j++) {
+						inverse[i][j] -= direction[i] * inverse[leaving][j];
+					}
+				}
+			}
+			basis[leaving] = entering;
+			basisCosts[leaving] = enteringCost;
+		}
+
+		throw new IllegalStateException("La relaxation continue n'a pas convergé en " + MAX_ITERATIONS + " itérations");
+	}
+
+	/**
+	 * Ajoute au plan la partie entière de la relaxation, en s'assurant de ne jamais placer plus d'items que disponibles.
+	 * @param sizes tailles présentes.
+	 * @param demand nombre d'items pour chaque taille présente.
+	 * @param relaxation relaxation continue résolue.
+	 * @param plan plan à compléter.
+	 * @return reliquat d'items non placés.
+	 */
+	private long[] roundDown(final int[] sizes, final long[] demand, final Relaxation relaxation, final PackingPlan plan) {
+		long[] residual = demand.clone();
+		for (int i = 0; i < relaxation.basis.length; i++) {
+			long[] column = relaxation.basis[i];
+			long count = (long) Math.floor(relaxation.values[i] + EPSILON);
+			for (int j = 0; j < column.length; j++) {
+				if (column[j] > 0) {
+					count = Math.min(count, residual[j] / column[j]);
+				}
+			}
+			if (count > 0) {
+				for (int j = 0; j < column.length; j++) {
+					residual[j] -= count * column[j];
+				}
+				plan.add(this.toPattern(sizes, column), count);
+			}
+		}
+		return residual;
+	}
+
+	/**
+	 * Place le reliquat de l'arrondi inférieur en ajoutant un paquet par contenu de la base, limité aux items restants.
+	 * <br /> La relaxation place exactement tous les items : la partie fractionnaire de chaque contenu de la base
+	 * couvre donc le reliquat, et un paquet supplémentaire par contenu suffit.
+	 * @param sizes tailles présentes.
+	 * @param residual nombre d'items restants pour chaque taille présente.
+	 * @param relaxation relaxation continue résolue.
+	 * @param plan plan à compléter.
+	 * @return reliquat d'items non placés (non vide uniquement en cas d'erreur d'arrondi du simplexe).
+	 */
+	private long[] roundUp(final int[] sizes, final long[] residual, final Relaxation relaxation, final PackingPlan plan) {
+		long[] returnValue = residual.clone();
+		for (long[] column : relaxation.basis) {
+			long[] content = new long[column.length];
+			boolean empty = true;
+			for (int j = 0; j < column.length; j++) {
+				content[j] = Math.min(column[j], returnValue[j]);
+				returnValue[j] -= content[j];
+				empty &= content[j] == 0;
+			}
+			if (!empty) {
+				plan.add(this.toPattern(sizes, content), 1);
+			}
+		}
+		return returnValue;
+	}
+
+	/**
+	 * Sac à dos borné : recherche le contenu de paquet de valeur maximale pour la capacité donnée, sans dépasser le
+	 * nombre d'items disponibles de chaque taille (ce qui resserre la relaxation).
+	 * <br /> La solution fractionnaire (glouton par valeur par unité de place décroissante) est optimale pour la
+	 * relaxation du sac à dos, et une solution entière optimale s'en écarte d'au plus n fois la plus grande taille sur
+	 * chaque taille (n étant le nombre de tailles, théorème de proximité de Cook et al.) : seul cet écart est recherché
+	 * par programmation dynamique, sur une place indépendante de la capacité du paquet.
+	 * <br /> Chaque taille est découpée en lots de 1, 2, 4... items, ramenant le problème à un sac à dos 0/1.
+	 * @param sizes tailles présentes (poids), croissantes.
+	 * @param values valeur de chaque taille.
+	 * @param demand nombre d'items disponibles pour chaque taille.
+	 * @param capacity capacité du paquet.
+	 * @return nombre d'items pour chaque taille présente.
+	 */
+	private static long[] knapsack(final int[] sizes, final double[] values, final long[] demand, final int capacity) {
+		// solution fractionnaire gloutonne, arrondie à l'entier inférieur (seules les tailles de valeur positive sont utiles)
+		long[] available = new long[sizes.length];
+		Integer[] order = new Integer[sizes.length];
+		for (int j = 0; j < sizes.length; j++) {
+			available[j] = values[j] > 0 ? Math.min(demand[j], capacity / sizes[j]) : 0;
+			order[j] = j;
+		}
+		Arrays.sort(order, Comparator.comparingDouble(j -> -values[j] / sizes[j]));
+		long[] greedy = new long[sizes.length];
+		long remainingSpace = capacity;
+		for (int j : order) {
+			greedy[j] = Math.min(available[j], remainingSpace / sizes[j]);
+			remainingSpace -= greedy[j] * sizes[j];
+			if (greedy[j] < available[j]) {
+				// taille prise en partie par la solution fractionnaire, qui s'arrête là
+				break;
+			}
+		}
+
+		// la solution entière optimale est recherchée autour de la solution gloutonne
+		long window = (long) sizes.length * sizes[sizes.length - 1];
+		long[] returnValue = new long[sizes.length];
+		long space = capacity;
+		List<int[]> lots = new ArrayList<>();
+		for (int j = 0; j < sizes.length; j++) {
+			returnValue[j] = Math.max(0, greedy[j] - window);
+			space -= returnValue[j] * sizes[j];
+			long free = Math.min(available[j], greedy[j] + 1 + window) - returnValue[j];
+			for (long lot = 1; free > 0; lot *= 2) {
+				int taken = (int) Math.min(lot, free);
+				lots.add(new int[]{j, taken});
+				free -= taken;
+			}
+		}
+		int lotsSpace = (int) Math.min(space, lots.stream().mapToLong(oneLot -> (long) oneLot[1] * sizes[oneLot[0]]).sum());
+
+		double[] best = new double[lotsSpace + 1];
+		boolean[][] chosen = new boolean[lots.size()][lotsSpace + 1];
+		for (int l = 0; l < lots.size(); l++) {
+			int j = lots.get(l)[0];
+			int weight = lots.get(l)[1] * sizes[j];
+			double value = lots.get(l)[1] * values[j];
+			for (int lotSpace = lotsSpace; lotSpace >= weight; lotSpace--) {
+				if (best[lotSpace - weight] + value > best[lotSpace] + EPSILON) {
+					best[lotSpace] = best[lotSpace - weight] + value;
+					chosen[l][lotSpace] = true;
+				}
+			}
+		}
+
+		// reconstruction du contenu
+		int lotSpace = lotsSpace;
+		for (int l = lots.size() - 1; l >= 0; l--) {
+			if (chosen[l][lotSpace]) {
+				returnValue[lots.get(l)[0]] += lots.get(l)[1];
+				lotSpace -= lots.get(l)[1] * sizes[lots.get(l)[0]];
+			}
+		}
+		return returnValue;
+	}
+
+	/**
+	 * Place les items de taille nulle : dans un paquet existant, ou dans un paquet du type le moins cher sinon.
+	 * @param count nombre d'items de taille nulle.
+	 * @param plan plan à compléter.
+	 */
+	private void addEmptyItems(final long count, final PackingPlan plan) {
+		if (count == 0) {
+			return;
+		}
+		long[] itemCounts = new long[Constants.MAX_ITEM_SIZE + 1];
+		PackageType type = this.packageTypes.get(0);
+		if (!plan.getPatterns().isEmpty()) {
+			// un des paquets existants accueille l'ensemble des items de taille nulle
+			PackagePattern host = plan.getPatterns().keySet().iterator().next();
+			plan.remove(host, 1);
+			itemCounts = host.getItemCounts();
+			type = host.getType();
+		}
+		itemCounts[0] += count;
+		plan.add(new PackagePattern(type, itemCounts), 1);
+	}
+
+	/**
+	 * Solution de la relaxation continue : contenus de paquet de la base et quantités (fractionnaires) associées.
+	 */
+	private static final class Relaxation {
+
+		/**
+		 * Contenus de paquet de la base, en nombre d'items pour chaque taille présente.
+		 */
+		private final long[][] basis;
+
+		/**
+		 * Nombre de paquets de chaque contenu de la base.
+		 */
+		private final double[] values;
+
+		/**
+		 * Constructeur.
+		 * @param basis contenus de paquet de la base.
+		 * @param values nombre de paquets de chaque contenu.
+		 */
+		private Relaxation(final long[][] basis, final double[] values) {
+			this.basis = basis;
+			this.values = values;
+		}
+	}
+
+	/**
+	 * Programmation dynamique exacte sur les histogrammes restants.
+	 * <br /> Chaque histogramme est codé en base mixte (le nombre d'items de chaque taille étant un chiffre), de sorte
+	 * que retirer le contenu d'un paquet mène toujours à un indice inférieur : les coûts sont calculés par indice
+	 * croissant. Pour un histogramme donné, seuls les contenus portant le plus gros item restant et ne pouvant plus
+	 * accueillir aucun item restant sont explorés, ce qui ne fait pas perdre l'optimum : les branches ne pouvant plus
+	 * mener à un tel contenu sont coupées pendant l'exploration.
+	 */
+	private final class ExactSolver {
+
+		/**
+		 * Tailles présentes, croissantes.
+		 */
+		private final int[] sizes;
+
+		/**
+		 * Valeur de position de chaque taille dans le codage des histogrammes.
+		 */
+		private final int[] weights;
+
+		/**
+		 * Histogramme de départ.
+		 */
+		private final long[] counts;
+
+		/**
+		 * Coût minimal de chaque histogramme.
+		 */
+		private final long[] costs;
+
+		/**
+		 * Histogramme obtenu après avoir retiré le paquet choisi.
+		 */
+		private final int[] previous;
+
+		/**
+		 * Histogramme en cours de traitement.
+		 */
+		private final int[] current;
+
+		/**
+		 * Contenu du paquet en cours d'exploration.
+		 */
+		private final int[] content;
+
+		/**
+		 * Capacité utile de chaque type de paquet.
+		 */
+		private final int[] capacities;
+
+		/**
+		 * Coût du paquet le moins cher pour chaque taille occupée.
+		 */
+		private final int[] fittingCosts;
+
+		/**
+		 * Taille cumulée des items de l'histogramme courant, pour les tailles d'indice strictement inférieur.
+		 */
+		private final long[] sizesBelow;
+
+		/**
+		 * Constructeur.
+		 * @param sizes tailles présentes.
+		 * @param counts histogramme de départ.
+		 * @param capacities capacité utile de chaque type de paquet.
+		 */
+		private ExactSolver(final int[] sizes, final long[] counts, final int[] capacities) {
+			this.sizes = sizes;
+			this.counts = counts;
+			this.capacities = capacities;
+			this.weights = new int[sizes.length];
+			int stateCount = 1;
+			for (int j = 0; j < sizes.length; j++) {
+				this.weights[j] = stateCount;
+				stateCount *= (int) counts[j] + 1;
+			}
+			this.costs = new long[stateCount];
+			this.previous = new int[stateCount];
+			this.current = new int[sizes.length];
+			this.content = new int[sizes.length];
+			this.sizesBelow = new long[sizes.length + 1];
+
+			// les types sont triés par capacité et par coût croissants : un seul parcours suffit
+			this.fittingCosts = new int[capacities[capacities.length - 1] + 1];
+			int type = 0;
+			for (int usedSize = 0; usedSize < this.fittingCosts.length; usedSize++) {
+				while (capacities[type] < usedSize) {
+					type++;
+				}
+				this.fittingCosts[usedSize] = CostPackager.this.packageTypes.get(type).getCost();
+			}
+		}
+
+		/**
+		 * Résout et ajoute les paquets au plan.
+		 * @param plan plan à compléter.
+		 */
+		private void solve(final PackingPlan plan) {
+			for (int state = 1; state < this.costs.length; state++) {
+				// incrément de l'histogramme courant
+				for (int j = 0; j < this.current.length; j++) {
+					if (this.current[j] < this.counts[j]) {
+						this.current[j]++;
+						break;
+					}
+					this.current[j] = 0;
+				}
+
+				int largest = this.current.length - 1;
+				while (this.current[largest] == 0) {
+					largest--;
+				}
+				for (int j = 0; j < this.current.length; j++) {
+					this.sizesBelow[j + 1] = this.sizesBelow[j] + (long) this.current[j] * this.sizes[j];
+				}
+				this.costs[state] = Long.MAX_VALUE;
+				for (int t = 0; t < this.capacities.length; t++) {
+					// deux types de même capacité utile mènent aux mêmes contenus
+					if (this.capacities[t] >= this.sizes[largest] && (t == 0 || this.capacities[t] > this.capacities[t - 1])) {
+						this.explore(state, largest, largest, this.capacities[t], 0, Integer.MAX_VALUE);
+					}
+				}
+			}
+
+			// reconstruction des paquets
+			int state = this.costs.length - 1;
+			while (state > 0) {
+				int removed = state - this.previous[state];
+				long[] removedCounts = new long[this.sizes.length];
+				for (int j = 0; j < this.sizes.length; j++) {
+					removedCounts[j] = (removed / this.weights[j]) % (this.counts[j] + 1);
+				}
+				plan.add(CostPackager.this.toPattern(this.sizes, removedCounts), 1);
+				state = this.previous[state];
+			}
+		}
+
+		/**
+		 * Explore les contenus de paquet possibles, taille par taille, de la plus grande à la plus petite.
+		 * <br /> Un item laissé de côté impose que la place finale du paquet lui soit inférieure : les branches où
+		 * les tailles restantes ne peuvent plus combler suffisamment le paquet sont abandonnées, et lorsque tous
+		 * les items restants rentrent, ils sont tous pris d'un coup.
+		 * @param state histogramme courant.
+		 * @param largest indice du plus gros item restant, obligatoirement pris.
+		 * @param index indice de la taille en cours de choix.
+		 * @param space place restante dans le paquet.
+		 * @param usedSize place occupée dans le paquet.
+		 * @param threshold taille du plus petit item laissé de côté : la place finale doit lui être inférieure.
+		 */
+		private void explore(final int state, final int largest, final int index, final int space, final int usedSize,
+				final int threshold) {
+			// tous les items restants rentrent : un seul contenu complet possible
+			if (this.sizesBelow[index + 1] <= space) {
+				int remainingSpace = space - (int) this.sizesBelow[index + 1];
+				if (remainingSpace < threshold) {
+					for (int j = 0; j <= index; j++) {
+						this.content[j] = this.current[j];
+					}
+					this.record(state, usedSize + (int) this.sizesBelow[index + 1]);
+					for (int j = 0; j <= index; j++) {
+						this.content[j] = 0;
+					}
+				}
+				return;
+			}
+
+			int maxCount = Math.min(this.current[index], space / this.sizes[index]);
+			int minCount = index == largest ? 1 : 0;
+			for (int count = maxCount; count >= minCount; count--) {
+				int nextSpace = space - count * this.sizes[index];
+				int nextThreshold = count < this.current[index] ? Math.min(threshold, this.sizes[index]) : threshold;
+				// même en prenant tous les items plus petits, le paquet ne serait pas complet
+				// (et le serait encore moins en prenant moins d'items de cette taille)
+				if (nextSpace - this.sizesBelow[index] >= nextThreshold) {
+					break;
+				}
+				this.content[index] = count;
+				if (index == 0) {
+					this.record(state, usedSize + count * this.sizes[index]);
+				} else {
+					this.explore(state, largest, index - 1, nextSpace, usedSize + count * this.sizes[index], nextThreshold);
+				}
+			}
+			this.content[index] = 0;
+		}
+
+		/**
+		 * Retient le contenu de paquet en cours s'il améliore le coût de l'histogramme courant.
+		 * @param state histogramme courant.
+		 * @param usedSize place occupée dans le paquet.
+		 */
+		private void record(final int state, final int usedSize) {
+			int removed = 0;
+			for (int j = 0; j < this.sizes.length; j++) {
+				removed += this.content[j] * this.weights[j];
+			}
+			long cost = this.costs[state - removed] + this.fittingCosts[usedSize];
+			if (cost < this.costs[state]) {
+				this.costs[state] = cost;
+				this.previous[state] = state - removed;
+			}
+		}
+	}
+}
@@ -8,7 +8,7 @@ import lombok.Data;
 
 
 /**
- * Représente un paquet, dont la taille max est {@link Constants#MAX_SIZE}.
+ * Représente un paquet, dont la taille max est donnée par son {@link PackageType} ({@link Constants#MAX_SIZE} par défaut).
  * <br /> Il permet de maintenir la liste des items qui y ont été associés, et offre des fonctionnalités permettant
  * de connaitre son occupation à n'importe quel moment.
  * @author rlevexie
@@ -25,26 +25,43 @@ public class Package {
 	private List<Item> items;
 	
 	/**
-	 * Taille maximale du paquet.
+	 * Type du paquet, donnant sa taille maximale.
 	 */
-	private int maxSize;
+	private PackageType type;
 	
 	/**
 	 * Constructeur.
 	 */
 	public Package() {
-		// taille par défaut.
-		this.maxSize = Constants.MAX_SIZE;
+		// type par défaut.
+		this(PackageType.DEFAULT);
+	}
+	
+	/**
+	 * Constructeur.
+	 * @param type type du paquet, donnant sa taille maximale.
+	 */
+	public Package(final PackageType type) {
+		Assert.notNull(type);
+		this.type = type;
 		this.items = new ArrayList<>();
 	}
 	
+	/**
+	 * Retourne la taille maximale du paquet, donnée par son type.
+	 * @return taille maximale du paquet.
+	 */
+	public int getMaxSize() {
+		return this.type.getCapacity();
+	}
+	
 	/**
 	 * Détermine si le paquet est rempli (en fonction de la taille des items qui le constitue).
 	 * @return
 	 * 		true si le paquet est rempli, false sinon
 	 */
 	public boolean isFull() {
-		return this.maxSize <= this.getItemsTotalSize();
+		return this.getMaxSize() <= this.getItemsTotalSize();
 	}
 	
 	/**
@@ -67,7 +84,7 @@ public class Package {
 	 */
 	public boolean accept(final Item nextItem) {
 		Assert.notNull(nextItem);
-		return this.maxSize >= this.getItemsTotalSize() + nextItem.getItemSize();
+		return this.getMaxSize() >= this.getItemsTotalSize() + nextItem.getItemSize();
 	}
 
 	/**
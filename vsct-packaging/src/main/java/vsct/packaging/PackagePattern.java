@@ -0,0 +1,73 @@
+package vsct.packaging;
+
+import lombok.Data;
+
+
+/**
+ * Représente le contenu type d'un paquet : son {@link PackageType} et le nombre d'items pour chaque taille.
+ * <br /> Contrairement au {@link Package}, on ne manipule pas d'{@link Item} ici mais uniquement des compteurs,
+ * ce qui permet de décrire des millions de paquets identiques sans les instancier.
+ * @author rlevexie
+ *
+ */
+@Data
+public class PackagePattern {
+
+	/**
+	 * Type du paquet.
+	 */
+	private final PackageType type;
+
+	/**
+	 * Nombre d'items par taille (l'indice correspond à la taille de l'item, de 0 à {@link Constants#MAX_ITEM_SIZE}).
+	 */
+	private final long[] itemCounts;
+
+	/**
+	 * Constructeur.
+	 * <br /> Le contenu sert de clé dans le {@link PackingPlan} : le tableau fourni est copié.
+	 * @param type type du paquet.
+	 * @param itemCounts nombre d'items par taille.
+	 */
+	public PackagePattern(final PackageType type, final long[] itemCounts) {
+		Assert.notNull(type);
+		Assert.notNull(itemCounts);
+		this.type = type;
+		this.itemCounts = itemCounts.clone();
+	}
+
+	/**
+	 * Retourne une copie du nombre d'items par taille.
+	 * @return nombre d'items par taille (l'indice correspond à la taille de l'item).
+	 */
+	public long[] getItemCounts() {
+		return this.itemCounts.clone();
+	}
+
+	/**
+	 * Retourne la taille totale occupée par l'ensemble des items du paquet.
+	 * @return
+	 * 		La taille totale cumulée de l'ensemble des items du paquet.
+	 */
+	public long getItemsTotalSize() {
+		long total = 0;
+		for (int size = 0; size < this.itemCounts.length; size++) {
+			total += size * this.itemCounts[size];
+		}
+		return total;
+	}
+
+	/**
+	 * Instancie un {@link Package} correspondant à ce contenu, items triés par taille décroissante.
+	 * @return paquet rempli.
+	 */
+	public Package toPackage() {
+		Package returnValue = new Package(this.type);
+		for (int size = this.itemCounts.length - 1; size >= 0; size--) {
+			for (long i = 0; i < this.itemCounts[size]; i++) {
+				returnValue.addItem(new Item(size));
+			}
+		}
+		return returnValue;
+	}
+}
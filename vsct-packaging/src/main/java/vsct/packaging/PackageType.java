@@ -0,0 +1,46 @@
+package vsct.packaging;
+
+import lombok.Data;
+
+
+/**
+ * Représente un type de paquet du catalogue : une capacité (taille max des items cumulés) et un coût unitaire.
+ * <br /> Le type par défaut {@link PackageType#DEFAULT} correspond au paquet historique de taille {@link Constants#MAX_SIZE}.
+ * @author rlevexie
+ *
+ */
+@Data
+public class PackageType {
+
+	/**
+	 * Type de paquet par défaut.
+	 */
+	public static final PackageType DEFAULT = new PackageType(Constants.MAX_SIZE, Constants.DEFAULT_COST);
+
+	/**
+	 * Taille maximale des paquets de ce type.
+	 */
+	private final int capacity;
+
+	/**
+	 * Coût d'un paquet de ce type.
+	 */
+	private final int cost;
+
+	/**
+	 * Constructeur.
+	 * @param capacity taille maximale du paquet, strictement positive.
+	 * @param cost coût du paquet, positif ou nul.
+	 * @throws IllegalArgumentException si la capacité ou le coût sont invalides.
+	 */
+	public PackageType(final int capacity, final int cost) throws IllegalArgumentException {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("La capacité d'un type de paquet doit être positive");
+		}
+		if (cost < 0) {
+			throw new IllegalArgumentException("Le coût d'un type de paquet ne peut être négatif");
+		}
+		this.capacity = capacity;
+		this.cost = cost;
+	}
+}
@@ -28,7 +28,7 @@ public class Packager {
 	public List<Package> packageAll(final String[] args) {
 
 		// validation de base des arguments en entrée
-		this.validateRaw(args);
+		validateRaw(args);
 
 		
 		// construction de la liste d'item, qui va être utilisé pour créer nos paquets.
@@ -86,7 +86,7 @@ public class Packager {
 	 * <br /> 
 	 * @param args -
 	 */
-	private void validateRaw(final String[] args) {
+	static void validateRaw(final String[] args) {
 		
 		// liste de paramètres non vide
 		if (args == null || args.length == 0) {
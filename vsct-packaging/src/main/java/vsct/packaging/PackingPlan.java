@@ -0,0 +1,107 @@
+package vsct.packaging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Data;
+
+
+/**
+ * Résultat du {@link CostPackager} : pour chaque {@link PackagePattern}, le nombre de paquets identiques à produire.
+ * <br /> Le plan reste compact quel que soit le nombre d'items, les {@link Package} n'étant instanciés qu'à la demande
+ * via {@link PackingPlan#toPackages()}.
+ * @author rlevexie
+ *
+ */
+@Data
+public class PackingPlan {
+
+	/**
+	 * Nombre de paquets à produire pour chaque contenu.
+	 */
+	private final Map<PackagePattern, Long> patterns = new LinkedHashMap<>();
+
+	/**
+	 * Retourne le nombre de paquets à produire pour chaque contenu, en lecture seule.
+	 * @return nombre de paquets par contenu.
+	 */
+	public Map<PackagePattern, Long> getPatterns() {
+		return Collections.unmodifiableMap(this.patterns);
+	}
+
+	/**
+	 * Rajoute des paquets au plan.
+	 * @param pattern contenu des paquets.
+	 * @param count nombre de paquets à rajouter.
+	 */
+	void add(final PackagePattern pattern, final long count) {
+		Assert.notNull(pattern);
+		this.patterns.merge(pattern, count, Long::sum);
+	}
+
+	/**
+	 * Retire des paquets du plan.
+	 * @param pattern contenu des paquets.
+	 * @param count nombre de paquets à retirer.
+	 */
+	void remove(final PackagePattern pattern, final long count) {
+		Assert.notNull(pattern);
+		long remaining = this.patterns.getOrDefault(pattern, 0L) - count;
+		if (remaining > 0) {
+			this.patterns.put(pattern, remaining);
+		} else {
+			this.patterns.remove(pattern);
+		}
+	}
+
+	/**
+	 * Retourne le nombre total de paquets du plan.
+	 * @return nombre de paquets.
+	 */
+	public long getPackageCount() {
+		return this.patterns.values().stream().mapToLong(Long::longValue).sum();
+	}
+
+	/**
+	 * Retourne le coût total du plan.
+	 * @return somme des coûts de l'ensemble des paquets.
+	 */
+	public long getTotalCost() {
+		return this.patterns.entrySet().stream()
+				.mapToLong(entry -> entry.getKey().getType().getCost() * entry.getValue())
+				.sum();
+	}
+
+	/**
+	 * Retourne le nombre d'items par taille, cumulé sur l'ensemble des paquets du plan.
+	 * @return nombre d'items par taille (l'indice correspond à la taille de l'item).
+	 */
+	public long[] getItemCounts() {
+		long[] returnValue = new long[Constants.MAX_ITEM_SIZE + 1];
+		this.patterns.forEach((pattern, count) -> {
+			long[] itemCounts = pattern.getItemCounts();
+			for (int size = 0; size < returnValue.length; size++) {
+				returnValue[size] += itemCounts[size] * count;
+			}
+		});
+		return returnValue;
+	}
+
+	/**
+	 * Instancie l'ensemble des {@link Package} du plan.
+	 * <br /> <b>A réserver aux petits volumes, chaque item étant instancié.</b>
+	 * @return liste des paquets.
+	 */
+	public List<Package> toPackages() {
+		List<Package> returnValue = new ArrayList<>();
+		this.patterns.forEach((pattern, count) -> {
+			for (long i = 0; i < count; i++) {
+				returnValue.add(pattern.toPackage());
+			}
+		});
+		return returnValue;
+	}
+}
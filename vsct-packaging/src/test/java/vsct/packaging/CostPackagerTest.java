@@ -0,0 +1,261 @@
+package vsct.packaging;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+
+
+/**
+ * Classe de test pour {@link CostPackager}.
+ * @author rlevexie
+ *
+ */
+@RunWith(BlockJUnit4ClassRunner.class)
+public class CostPackagerTest {
+
+	/**
+	 * Catalogue réduit au type de paquet par défaut.
+	 */
+	private static final List<PackageType> DEFAULT_CATALOGUE = Collections.singletonList(PackageType.DEFAULT);
+
+	/**
+	 * Permet de générer une chaine d'items aléatoires de taille aléatoire.
+	 * On reste dans les 50 items, avec des tailles allant de 1 à 9.
+	 * @return chaine d'items aléatoires
+	 */
+	private String randomize() {
+		StringBuilder returnValue = new StringBuilder();
+		Random randomizer = new Random();
+		int nbInput = randomizer.nextInt(50) + 1;
+		for (int i = 0; i < nbInput; i++) {
+			returnValue.append(randomizer.nextInt(9) + 1);
+		}
+		return returnValue.toString();
+	}
+
+	/**
+	 * On valide sur l'exemple de référence que l'on retrouve le nombre de paquets minimal.
+	 */
+	@Test
+	public void testThatReferenceExampleIsOptimal() {
+		PackingPlan plan = new CostPackager(DEFAULT_CATALOGUE).packageAll(new String[]{"1234566345"});
+
+		Assert.assertEquals("Le nombre de paquets est ko", 4, plan.getPackageCount());
+		Assert.assertEquals("Le coût est ko", 4, plan.getTotalCost());
+	}
+
+	/**
+	 * On valide que tous les items sont présents, qu'ils ne débordent pas, et que l'on ne fait pas moins bien que le {@link Packager}.
+	 */
+	@Test
+	public void testThatItemsAreAllPresentAndFitInPackages() {
+		String input = this.randomize();
+
+		PackingPlan plan = new CostPackager(DEFAULT_CATALOGUE).packageAll(new String[]{input});
+		List<Package> packages = plan.toPackages();
+
+		Assert.assertArrayEquals("Les items ne sont pas identiques", CostPackager.histogram(input), plan.getItemCounts());
+		Assert.assertEquals("Les paquets instanciés ne correspondent pas au plan", plan.getPackageCount(), packages.size());
+		Assert.assertTrue("Certains paquets ont des items qui débordent",
+				packages.stream().allMatch(onePackage -> onePackage.getItemsTotalSize() <= onePackage.getMaxSize()));
+		Assert.assertTrue("Le plan ne peut pas être moins bon que le first-fit",
+				plan.getPackageCount() <= new Packager().packageAll(new String[]{input}).size());
+	}
+
+	/**
+	 * On valide que les petits paquets sont préférés lorsqu'ils reviennent moins cher.
+	 */
+	@Test
+	public void testThatCheaperPackageTypesArePreferred() {
+		CostPackager packager = new CostPackager(Arrays.asList(new PackageType(10, 2), new PackageType(3, 1)));
+
+		PackingPlan plan = packager.packageAll(new String[]{"3"});
+		Assert.assertEquals("Un petit paquet est moins cher qu'un grand", 1, plan.getTotalCost());
+
+		plan = packager.packageAll(new String[]{"333333"});
+		Assert.assertEquals("Un grand paquet pour trois items revient moins cher", 2 * 2, plan.getTotalCost());
+	}
+
+	/**
+	 * On valide qu'un type de paquet plus petit et plus cher qu'un autre n'est jamais utilisé.
+	 */
+	@Test
+	public void testThatDominatedPackageTypesAreIgnored() {
+		PackageType dominated = new PackageType(5, 2);
+		CostPackager packager = new CostPackager(Arrays.asList(PackageType.DEFAULT, dominated));
+
+		PackingPlan plan = packager.packageAll(new String[]{this.randomize()});
+
+		Assert.assertTrue("Le type dominé ne doit pas être utilisé",
+				plan.getPatterns().keySet().stream().noneMatch(onePattern -> onePattern.getType().equals(dominated)));
+	}
+
+	/**
+	 * On valide que les items de taille nulle sont bien placés.
+	 */
+	@Test
+	public void testThatEmptyItemsArePlaced() {
+		CostPackager packager = new CostPackager(DEFAULT_CATALOGUE);
+
+		Assert.assertEquals("Un paquet suffit", 1, packager.packageAll(new String[]{"000"}).getPackageCount());
+		Assert.assertEquals("Les items vides ne coûtent rien", 2, packager.packageAll(new String[]{"0990"}).getPackageCount());
+	}
+
+	/**
+	 * On valide que de très gros volumes sont traités rapidement, au plus un paquet par taille au dessus de l'optimum.
+	 * <br /> Les items vont par paires complémentaires (1 et 9, 2 et 8...) : l'optimum remplit tous les paquets.
+	 */
+	@Test(timeout = 5000)
+	public void testThatHugeHistogramIsPackagedQuickly() {
+		long[] histogram = new long[Constants.MAX_ITEM_SIZE + 1];
+		Random randomizer = new Random(42);
+		for (int size = 1; size < Constants.MAX_SIZE / 2; size++) {
+			histogram[size] = 10_000_000L + randomizer.nextInt(10_000_000);
+			histogram[Constants.MAX_SIZE - size] = histogram[size];
+		}
+		histogram[Constants.MAX_SIZE / 2] = 2 * (10_000_000L + randomizer.nextInt(10_000_000));
+		long optimum = Arrays.stream(histogram).sum() / 2;
+
+		PackingPlan plan = new CostPackager(DEFAULT_CATALOGUE).packageHistogram(histogram);
+
+		Assert.assertArrayEquals("Les items ne sont pas identiques", histogram, plan.getItemCounts());
+		Assert.assertTrue("Certains paquets ont des items qui débordent",
+				plan.getPatterns().keySet().stream().allMatch(onePattern -> onePattern.getItemsTotalSize() <= Constants.MAX_SIZE));
+		Assert.assertTrue("Le plan est trop loin de l'optimum", plan.getPackageCount() <= optimum + Constants.MAX_ITEM_SIZE);
+	}
+
+	/**
+	 * On valide sur un catalogue à plusieurs types que de très gros volumes sont traités rapidement, au plus un paquet
+	 * du type le plus cher par taille au dessus de l'optimum (le reliquat de l'arrondi est ici trop gros pour la
+	 * programmation dynamique exacte).
+	 * <br /> L'histogramme est un multiple d'un contenu remplissant exactement le grand paquet, plus quelques items :
+	 * l'optimum ne dépasse pas le coût des grands paquets plus celui des items ajoutés placés un par un.
+	 */
+	@Test(timeout = 5000)
+	public void testThatHugeHistogramIsPackagedQuicklyWithSeveralTypes() {
+		PackageType large = new PackageType(60, 12);
+		PackageType small = new PackageType(10, 3);
+		CostPackager packager = new CostPackager(Arrays.asList(large, new PackageType(25, 6), small));
+		long[] fullContent = new long[]{0, 1, 1, 1, 1, 1, 2, 1, 1, 2};
+		long fullCount = 20_000_000L;
+
+		long[] histogram = new long[Constants.MAX_ITEM_SIZE + 1];
+		long optimum = fullCount * large.getCost();
+		Random randomizer = new Random(42);
+		for (int size = 1; size < histogram.length; size++) {
+			int extra = randomizer.nextInt(50);
+			histogram[size] = fullCount * fullContent[size] + extra;
+			optimum += extra * small.getCost();
+		}
+
+		PackingPlan plan = packager.packageHistogram(histogram);
+
+		Assert.assertArrayEquals("Les items ne sont pas identiques", histogram, plan.getItemCounts());
+		Assert.assertTrue("Certains paquets ont des items qui débordent",
+				plan.getPatterns().keySet().stream().allMatch(onePattern -> onePattern.getItemsTotalSize() <= onePattern.getType().getCapacity()));
+		Assert.assertTrue("Le plan est trop loin de l'optimum",
+				plan.getTotalCost() <= optimum + Constants.MAX_ITEM_SIZE * large.getCost());
+	}
+
+	/**
+	 * On valide que de grands paquets au regard des items ne font pas exploser la programmation dynamique exacte.
+	 */
+	@Test(timeout = 1000)
+	public void testThatLargeCapacitiesArePackagedQuickly() {
+		StringBuilder input = new StringBuilder();
+		for (int i = 0; i < 446; i++) {
+			input.append("12");
+		}
+
+		PackingPlan plan = new CostPackager(Collections.singletonList(new PackageType(2000, 1))).packageAll(new String[]{input.toString()});
+		Assert.assertEquals("Un seul paquet suffit", 1, plan.getPackageCount());
+
+		plan = new CostPackager(Arrays.asList(new PackageType(200, 3), new PackageType(68, 2), new PackageType(9, 1)))
+				.packageAll(new String[]{"12345678998765432112345678"});
+		Assert.assertEquals("Un seul grand paquet revient le moins cher", 3, plan.getTotalCost());
+	}
+
+	/**
+	 * On valide que des capacités démesurées au regard des items ne font exploser ni la mémoire ni le temps de calcul,
+	 * sur de petits comme sur de très gros volumes.
+	 */
+	@Test(timeout = 1000)
+	public void testThatHugeCapacitiesArePackagedQuickly() {
+		PackingPlan plan = new CostPackager(Collections.singletonList(new PackageType(Integer.MAX_VALUE, 1)))
+				.packageAll(new String[]{"123"});
+		Assert.assertEquals("Un seul paquet suffit", 1, plan.getPackageCount());
+
+		PackageType huge = new PackageType(1_000_000, 50_000);
+		CostPackager packager = new CostPackager(Arrays.asList(huge, PackageType.DEFAULT));
+		plan = packager.packageAll(new String[]{"123"});
+		Assert.assertEquals("Un petit paquet revient le moins cher", 1, plan.getTotalCost());
+
+		long[] histogram = new long[Constants.MAX_ITEM_SIZE + 1];
+		Random randomizer = new Random(42);
+		long totalSize = 0;
+		for (int size = 1; size < histogram.length; size++) {
+			histogram[size] = 10_000_000L + randomizer.nextInt(1_000_000);
+			totalSize += size * histogram[size];
+		}
+		plan = packager.packageHistogram(histogram);
+
+		Assert.assertArrayEquals("Les items ne sont pas identiques", histogram, plan.getItemCounts());
+		Assert.assertTrue("Certains paquets ont des items qui débordent",
+				plan.getPatterns().keySet().stream().allMatch(onePattern -> onePattern.getItemsTotalSize() <= onePattern.getType().getCapacity()));
+		// les grands paquets reviennent moins cher que les petits, et de si petits items les remplissent presque : l'optimum
+		// ne dépasse pas d'un paquet le nombre de grands paquets pleins
+		long fullCost = (totalSize + huge.getCapacity() - 1) / huge.getCapacity() * huge.getCost();
+		Assert.assertTrue("Le plan est trop loin de l'optimum",
+				plan.getTotalCost() <= fullCost + (Constants.MAX_ITEM_SIZE + 1) * huge.getCost());
+	}
+
+	/**
+	 * On valide que le plan retourné ne peut être modifié de l'extérieur.
+	 */
+	@Test
+	public void testThatPlanCannotBeAltered() {
+		PackingPlan plan = new CostPackager(DEFAULT_CATALOGUE).packageAll(new String[]{"1234566345"});
+		PackagePattern pattern = plan.getPatterns().keySet().iterator().next();
+
+		pattern.getItemCounts()[1] = 1000;
+		Assert.assertTrue("Le contenu du paquet a été modifié", pattern.getItemsTotalSize() <= Constants.MAX_SIZE);
+		Assert.assertTrue("Le plan ne retrouve plus ses contenus", plan.getPatterns().containsKey(pattern));
+		try {
+			plan.getPatterns().clear();
+			Assert.fail("Le plan ne doit pas être modifiable");
+		} catch (UnsupportedOperationException e) {
+			Assert.assertEquals("Le plan a été modifié", 4, plan.getPackageCount());
+		}
+	}
+
+	/**
+	 * On valide que l'on controle bien les entrées.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testThatEmptyCatalogueIsRejected() {
+		new CostPackager(Collections.emptyList());
+	}
+
+	/**
+	 * On valide que l'on controle bien les entrées.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testThatTooBigItemIsRejected() {
+		new CostPackager(Collections.singletonList(new PackageType(5, 1))).packageAll(new String[]{"126"});
+	}
+
+	/**
+	 * On valide que l'on controle bien les entrées.
+	 */
+	@Test(expected = NumberFormatException.class)
+	public void testThatNonNumericValueIsRejected() {
+		new CostPackager(DEFAULT_CATALOGUE).packageAll(new String[]{"z12234"});
+	}
+
+}
@@ -0,0 +1,357 @@
+package vsct.packaging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+
+
+/**
+ * Tests différentiels et de performance des packagers, sur des jeux d'items produits par le {@link WorkloadGenerator}.
+ * <br /> Chaque chemin de packaging (first-fit du {@link Packager}, {@link CostPackager} sur chaine et sur fichier)
+ * est exécuté sur les mêmes items, pour plusieurs catalogues de paquets, et les résultats sont confrontés entre eux.
+ * <br /> Deux mesures sont rapportées au temps d'une boucle de référence mesurée dans la même exécution, ce qui les
+ * rend indépendantes de la machine, puis comparées aux valeurs de référence enregistrées dans {@value #BASELINE_FILE},
+ * à la tolérance près :
+ * <br /> - le débit de bout en bout (lecture du fichier puis résolution), en items par unité de boucle de référence,
+ * pour chaque distribution : il ne dépend pas du nombre d'items, et contrôle la lecture à toute échelle ;
+ * <br /> - le temps de résolution seule, pour chaque catalogue et chaque distribution, qui doit rester négligeable.
+ * <br /> Les propriétés système suivantes permettent d'ajuster le test :
+ * <br /> - workload.items : nombre d'items des fichiers dont le débit est mesuré (les fichiers sont lus par blocs, des
+ * milliards d'items ne demandent que l'espace disque d'un fichier à la fois) ;
+ * <br /> - workload.tolerance : part de la performance de référence en dessous de laquelle le test échoue ;
+ * <br /> - workload.record : à true, enregistre les ratios mesurés comme nouvelle référence au lieu de les contrôler.
+ * @author rlevexie
+ *
+ */
+@RunWith(BlockJUnit4ClassRunner.class)
+public class PackagingWorkloadTest {
+
+	/**
+	 * Fichier des valeurs de référence (débits et temps de résolution, rapportés au temps de la boucle de référence).
+	 */
+	private static final String BASELINE_FILE = "workload-baseline.properties";
+
+	/**
+	 * Nombre d'items des tests différentiels (le first-fit est quadratique).
+	 */
+	private static final long SMALL_WORKLOAD = 2000;
+
+	/**
+	 * Nombre d'items des petits jeux du test de performance : la programmation dynamique exacte y est utilisée
+	 * directement, et doit rester rapide même avec de grands paquets.
+	 */
+	private static final long TINY_WORKLOAD = 24;
+
+	/**
+	 * Nombre d'items des gros jeux du test de performance, dont le débit de lecture est mesuré.
+	 */
+	private static final long LARGE_WORKLOAD = Long.getLong("workload.items", 32_000_000L);
+
+	/**
+	 * Part de la performance de référence en dessous de laquelle le test échoue : la marge absorbe le bruit de mesure
+	 * (les résolutions durent moins d'une milliseconde) mais pas un ralentissement de la lecture ou de la résolution.
+	 */
+	private static final double TOLERANCE = Double.parseDouble(System.getProperty("workload.tolerance", "0.25"));
+
+	/**
+	 * Nombre de mesures de chaque temps, seule la meilleure est retenue.
+	 */
+	private static final int MEASURES = 5;
+
+	/**
+	 * Durée minimale d'une mesure : les exécutions courtes sont répétées pour atteindre cette durée.
+	 */
+	private static final long MEASURE_NANOS = 20_000_000L;
+
+	/**
+	 * Nombre maximal de résolutions non mesurées de chaque scénario (dans la limite de {@link #MEASURE_NANOS}),
+	 * pour la chauffe du JIT.
+	 */
+	private static final int WARMUP_RUNS = 20;
+
+	/**
+	 * Nombre d'itérations de la boucle de référence.
+	 */
+	private static final int REFERENCE_ITERATIONS = 10_000_000;
+
+	/**
+	 * Catalogue réduit au type de paquet par défaut.
+	 */
+	private static final List<PackageType> DEFAULT_CATALOGUE = Collections.singletonList(PackageType.DEFAULT);
+
+	/**
+	 * Résultat de la boucle de référence, conservé pour qu'elle ne soit pas éliminée par le JIT.
+	 */
+	private static volatile long referenceSink;
+
+	/**
+	 * Répertoire des fichiers générés.
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Distributions testées, par nom, pour une graine donnée.
+	 * @param seed graine des générateurs.
+	 * @return générateurs.
+	 */
+	private Map<String, WorkloadGenerator> generators(final long seed) {
+		Map<String, WorkloadGenerator> returnValue = new LinkedHashMap<>();
+		returnValue.put("uniform", WorkloadGenerator.uniform(seed));
+		returnValue.put("small", WorkloadGenerator.smallItems(seed));
+		returnValue.put("large", WorkloadGenerator.largeItems(seed));
+		returnValue.put("empty", WorkloadGenerator.withEmptyItems(seed));
+		return returnValue;
+	}
+
+	/**
+	 * Catalogues testés, par nom : le type par défaut, plusieurs types de capacités proches, et des capacités grandes
+	 * au regard des items (avec un type dominé, jamais utile).
+	 * @return catalogues.
+	 */
+	private Map<String, List<PackageType>> catalogues() {
+		Map<String, List<PackageType>> returnValue = new LinkedHashMap<>();
+		returnValue.put("default", DEFAULT_CATALOGUE);
+		returnValue.put("several", Arrays.asList(new PackageType(60, 12), new PackageType(25, 6), new PackageType(10, 3)));
+		returnValue.put("wide", Arrays.asList(new PackageType(200, 3), new PackageType(68, 2), new PackageType(9, 1),
+				new PackageType(50, 2)));
+		return returnValue;
+	}
+
+	/**
+	 * Coût minimal théorique : la place totale occupée par les items, au coût par unité de place le plus bas.
+	 * @param histogram nombre d'items par taille.
+	 * @param catalogue types de paquets disponibles.
+	 * @return minorant du coût.
+	 */
+	private double lowerBound(final long[] histogram, final List<PackageType> catalogue) {
+		long totalSize = 0;
+		for (int size = 0; size < histogram.length; size++) {
+			totalSize += size * histogram[size];
+		}
+		double costPerSize = catalogue.stream()
+				.mapToDouble(oneType -> (double) oneType.getCost() / oneType.getCapacity())
+				.min().getAsDouble();
+		return totalSize * costPerSize;
+	}
+
+	/**
+	 * Contrôle que le plan place exactement les items de l'histogramme, sans débordement.
+	 * @param histogram nombre d'items par taille.
+	 * @param plan plan à contrôler.
+	 */
+	private void assertPlanIsValid(final long[] histogram, final PackingPlan plan) {
+		Assert.assertArrayEquals("Le CostPackager a perdu des items", histogram, plan.getItemCounts());
+		Assert.assertTrue("Certains paquets ont des items qui débordent", plan.getPatterns().keySet().stream()
+				.allMatch(onePattern -> onePattern.getItemsTotalSize() <= onePattern.getType().getCapacity()));
+	}
+
+	/**
+	 * Mesure le temps d'exécution d'une tâche : meilleur temps moyen sur plusieurs mesures, chaque mesure répétant
+	 * la tâche pendant au moins {@link #MEASURE_NANOS}.
+	 * @param task tâche à mesurer.
+	 * @return temps d'exécution en nanosecondes.
+	 */
+	private double measure(final Runnable task) {
+		double returnValue = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < MEASURES; i++) {
+			long start = System.nanoTime();
+			long runs = 0;
+			long elapsed;
+			do {
+				task.run();
+				runs++;
+				elapsed = System.nanoTime() - start;
+			} while (elapsed < MEASURE_NANOS);
+			returnValue = Math.min(returnValue, (double) elapsed / runs);
+		}
+		return returnValue;
+	}
+
+	/**
+	 * Boucle de référence, purement calculatoire, servant d'étalon de la vitesse de la machine.
+	 */
+	private static void referenceLoop() {
+		long value = 1;
+		for (int i = 0; i < REFERENCE_ITERATIONS; i++) {
+			value ^= value << 13;
+			value ^= value >>> 7;
+			value ^= value << 17;
+		}
+		referenceSink = value;
+	}
+
+	/**
+	 * Retourne la valeur de référence d'un scénario.
+	 * @param baseline valeurs de référence.
+	 * @param key scénario.
+	 * @return valeur de référence.
+	 */
+	private double expected(final Properties baseline, final String key) {
+		Assert.assertNotNull("Pas de référence pour " + key, baseline.getProperty(key));
+		return Double.parseDouble(baseline.getProperty(key));
+	}
+
+	/**
+	 * On valide qu'une même graine produit toujours le même fichier, et que l'histogramme retourné est juste.
+	 * @throws IOException -
+	 */
+	@Test
+	public void testThatGeneratorIsReproducible() throws IOException {
+		Path first = this.folder.newFile().toPath();
+		Path second = this.folder.newFile().toPath();
+
+		long[] histogram = WorkloadGenerator.uniform(42).write(first, SMALL_WORKLOAD);
+		WorkloadGenerator.uniform(42).write(second, SMALL_WORKLOAD);
+
+		Assert.assertEquals("La taille du fichier est ko", SMALL_WORKLOAD, Files.size(first));
+		Assert.assertArrayEquals("Les fichiers doivent être identiques", Files.readAllBytes(first), Files.readAllBytes(second));
+		Assert.assertArrayEquals("L'histogramme est ko", histogram, CostPackager.histogram(first));
+		Assert.assertEquals("Aucun item vide ne doit être généré", 0, histogram[0]);
+	}
+
+	/**
+	 * On valide que tous les chemins de packaging placent tous les items sans débordement, que les chemins du
+	 * {@link CostPackager} sont équivalents, et que les coûts respectent les bornes attendues, pour chaque catalogue.
+	 * @throws IOException -
+	 */
+	@Test
+	public void testThatAllPackagersAgreeOnWorkloads() throws IOException {
+		for (long seed = 0; seed < 5; seed++) {
+			for (WorkloadGenerator oneGenerator : this.generators(seed).values()) {
+				Path file = this.folder.newFile().toPath();
+				long[] histogram = oneGenerator.write(file, SMALL_WORKLOAD);
+				String raw = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII);
+
+				// first-fit, limité au type par défaut
+				List<Package> firstFit = new Packager().packageAll(new String[]{raw});
+				long[] firstFitHistogram = new long[Constants.MAX_ITEM_SIZE + 1];
+				firstFit.forEach(onePackage -> onePackage.getItems().forEach(oneItem -> firstFitHistogram[oneItem.getItemSize()]++));
+				Assert.assertArrayEquals("Le first-fit a perdu des items", histogram, firstFitHistogram);
+
+				for (Map.Entry<String, List<PackageType>> oneCatalogue : this.catalogues().entrySet()) {
+					CostPackager costPackager = new CostPackager(oneCatalogue.getValue());
+					PackingPlan fromString = costPackager.packageAll(new String[]{raw});
+					PackingPlan fromFile = costPackager.packageHistogram(CostPackager.histogram(file));
+
+					// tous les items sont placés, équivalence des chemins du CostPackager
+					this.assertPlanIsValid(histogram, fromFile);
+					Assert.assertEquals("Les plans sur chaine et sur fichier diffèrent (" + oneCatalogue.getKey() + ")",
+							fromString.getPatterns(), fromFile.getPatterns());
+
+					// minorant théorique du coût
+					Assert.assertTrue("Le CostPackager passe sous le minorant (" + oneCatalogue.getKey() + ")",
+							fromFile.getTotalCost() >= Math.floor(this.lowerBound(histogram, oneCatalogue.getValue())));
+				}
+
+				// sur le type par défaut : pas moins bon que le first-fit, lui-même au plus 11/9 de l'optimum (+ 6/9)
+				long count = new CostPackager(DEFAULT_CATALOGUE).packageHistogram(histogram).getPackageCount();
+				Assert.assertTrue("Le CostPackager ne peut pas être moins bon que le first-fit", count <= firstFit.size());
+				Assert.assertTrue("Le first-fit dépasse sa borne", 9 * firstFit.size() <= 11 * count + 6);
+			}
+		}
+	}
+
+	/**
+	 * On valide que le débit du {@link CostPackager} sur fichier, et son temps de résolution, rapportés à la boucle de
+	 * référence, ne régressent pas par rapport à la référence, pour chaque catalogue et chaque distribution.
+	 * @throws IOException -
+	 */
+	@Test
+	public void testThatSolverMeetsBaseline() throws IOException {
+		CostPackager defaultPackager = new CostPackager(DEFAULT_CATALOGUE);
+
+		// débit de bout en bout sur les gros fichiers, un seul fichier présent sur disque à la fois
+		Map<String, Double> throughputs = new LinkedHashMap<>();
+		Map<String, long[]> histograms = new LinkedHashMap<>();
+		for (Map.Entry<String, WorkloadGenerator> oneGenerator : this.generators(42).entrySet()) {
+			Path file = this.folder.newFile().toPath();
+			long[] histogram = oneGenerator.getValue().write(file, LARGE_WORKLOAD);
+			// première lecture non mesurée, pour la chauffe du JIT
+			Assert.assertArrayEquals("L'histogramme est ko", histogram, CostPackager.histogram(file));
+
+			double referenceNanos = this.measure(PackagingWorkloadTest::referenceLoop);
+			double readNanos = this.measure(() -> {
+				try {
+					this.assertPlanIsValid(histogram, defaultPackager.packageHistogram(CostPackager.histogram(file)));
+				} catch (IOException e) {
+					throw new AssertionError("Le fichier ne peut être lu", e);
+				}
+			});
+			throughputs.put("read." + oneGenerator.getKey(), LARGE_WORKLOAD * referenceNanos / readNanos);
+
+			histograms.put(oneGenerator.getKey(), histogram);
+			histograms.put(oneGenerator.getKey() + ".tiny", oneGenerator.getValue().write(file, TINY_WORKLOAD));
+			Files.delete(file);
+		}
+
+		// chauffe du JIT sur l'ensemble des scénarios de résolution, en contrôlant au passage les plans produits
+		for (List<PackageType> oneCatalogue : this.catalogues().values()) {
+			CostPackager costPackager = new CostPackager(oneCatalogue);
+			for (long[] oneHistogram : histograms.values()) {
+				this.assertPlanIsValid(oneHistogram, costPackager.packageHistogram(oneHistogram));
+				long start = System.nanoTime();
+				for (int i = 0; i < WARMUP_RUNS && System.nanoTime() - start < MEASURE_NANOS; i++) {
+					costPackager.packageHistogram(oneHistogram);
+				}
+			}
+		}
+
+		// ratio du temps de résolution sur le temps de la boucle de référence, par scénario
+		Map<String, Double> ratios = new LinkedHashMap<>();
+		for (Map.Entry<String, List<PackageType>> oneCatalogue : this.catalogues().entrySet()) {
+			CostPackager costPackager = new CostPackager(oneCatalogue.getValue());
+			for (Map.Entry<String, long[]> oneHistogram : histograms.entrySet()) {
+				double referenceNanos = this.measure(PackagingWorkloadTest::referenceLoop);
+				double solveNanos = this.measure(() -> costPackager.packageHistogram(oneHistogram.getValue()));
+				ratios.put("solve." + oneCatalogue.getKey() + "." + oneHistogram.getKey(), solveNanos / referenceNanos);
+			}
+		}
+
+		Properties baseline = new Properties();
+		if (Boolean.getBoolean("workload.record")) {
+			// enregistrement de la nouvelle référence dans les sources de test
+			throughputs.forEach((key, throughput) -> baseline.setProperty(key, Double.toString(throughput)));
+			ratios.forEach((key, ratio) -> baseline.setProperty(key, Double.toString(ratio)));
+			try (OutputStream output = Files.newOutputStream(Paths.get("src", "test", "resources", BASELINE_FILE))) {
+				baseline.store(output, "read.* : items lus et resolus par unite de boucle de reference ; "
+						+ "solve.* : temps de resolution rapporte au temps de la boucle de reference");
+			}
+			return;
+		}
+
+		try (InputStream input = this.getClass().getResourceAsStream("/" + BASELINE_FILE)) {
+			Assert.assertNotNull("Le fichier de référence est absent", input);
+			baseline.load(input);
+		}
+		// le débit doit rester élevé, le temps de résolution bas
+		throughputs.forEach((key, throughput) -> {
+			double expected = this.expected(baseline, key);
+			Assert.assertTrue(key + " a régressé : débit de " + throughput + " pour une référence à " + expected,
+					throughput / expected >= TOLERANCE);
+		});
+		ratios.forEach((key, ratio) -> {
+			double expected = this.expected(baseline, key);
+			Assert.assertTrue(key + " a régressé : ratio de " + ratio + " pour une référence à " + expected,
+					expected / ratio >= TOLERANCE);
+		});
+	}
+
+}
@@ -0,0 +1,154 @@
+package vsct.packaging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+
+/**
+ * Générateur de jeux d'items volumineux et reproductibles, pour les tests de charge des packagers.
+ * <br /> Les tailles d'item sont tirées selon une distribution configurable (un poids par taille), à partir d'une
+ * graine : une même graine et une même distribution produisent toujours le même fichier.
+ * <br /> Le fichier (digits ascii sans séparateur) est écrit par blocs via un {@link FileChannel}, ce qui permet
+ * de produire des fichiers de plusieurs gigaoctets sans les porter en mémoire.
+ * @author rlevexie
+ *
+ */
+public class WorkloadGenerator {
+
+	/**
+	 * Taille de la table de tirage (puissance de 2) : les poids sont approchés à 1 / TABLE_SIZE près.
+	 */
+	private static final int TABLE_SIZE = 1 << 12;
+
+	/**
+	 * Nombre de tirages extraits de chaque long aléatoire.
+	 */
+	private static final int DRAWS_PER_LONG = Long.SIZE / Integer.numberOfTrailingZeros(TABLE_SIZE);
+
+	/**
+	 * Taille du buffer d'écriture.
+	 */
+	private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * Graine du générateur.
+	 */
+	private final long seed;
+
+	/**
+	 * Table de tirage : chaque digit y apparaît proportionnellement à son poids.
+	 */
+	private final byte[] table;
+
+	/**
+	 * Constructeur.
+	 * @param seed graine du générateur.
+	 * @param weights poids de chaque taille d'item (l'indice correspond à la taille de l'item).
+	 * @throws IllegalArgumentException si les poids sont invalides.
+	 */
+	public WorkloadGenerator(final long seed, final double[] weights) throws IllegalArgumentException {
+		Assert.notNull(weights);
+		if (weights.length != Constants.MAX_ITEM_SIZE + 1 || Arrays.stream(weights).anyMatch(oneWeight -> oneWeight < 0)) {
+			throw new IllegalArgumentException("Il faut un poids positif par taille d'item");
+		}
+		double total = Arrays.stream(weights).sum();
+		if (total <= 0) {
+			throw new IllegalArgumentException("Au moins un poids doit être non nul");
+		}
+
+		// remplissage de la table par poids cumulés
+		this.seed = seed;
+		this.table = new byte[TABLE_SIZE];
+		double cumulated = 0;
+		int start = 0;
+		for (int size = 0; size < weights.length; size++) {
+			cumulated += weights[size];
+			int end = size == weights.length - 1 ? TABLE_SIZE : (int) Math.round(cumulated / total * TABLE_SIZE);
+			Arrays.fill(this.table, start, Math.max(start, end), (byte) ('0' + size));
+			start = Math.max(start, end);
+		}
+	}
+
+	/**
+	 * Distribution uniforme des tailles 1 à 9 (celle des tests unitaires du {@link Packager}).
+	 * @param seed graine du générateur.
+	 * @return générateur.
+	 */
+	public static WorkloadGenerator uniform(final long seed) {
+		return new WorkloadGenerator(seed, new double[]{0, 1, 1, 1, 1, 1, 1, 1, 1, 1});
+	}
+
+	/**
+	 * Distribution favorisant les petits items : beaucoup d'items par paquet.
+	 * @param seed graine du générateur.
+	 * @return générateur.
+	 */
+	public static WorkloadGenerator smallItems(final long seed) {
+		return new WorkloadGenerator(seed, new double[]{0, 9, 8, 7, 6, 5, 4, 3, 2, 1});
+	}
+
+	/**
+	 * Distribution favorisant les gros items : peu de combinaisons possibles.
+	 * @param seed graine du générateur.
+	 * @return générateur.
+	 */
+	public static WorkloadGenerator largeItems(final long seed) {
+		return new WorkloadGenerator(seed, new double[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9});
+	}
+
+	/**
+	 * Distribution uniforme incluant les items de taille nulle.
+	 * @param seed graine du générateur.
+	 * @return générateur.
+	 */
+	public static WorkloadGenerator withEmptyItems(final long seed) {
+		return new WorkloadGenerator(seed, new double[]{1, 1, 1, 1, 1, 1, 1, 1, 1, 1});
+	}
+
+	/**
+	 * Ecrit le nombre d'items demandé dans le fichier (écrasé s'il existe).
+	 * @param file fichier à produire.
+	 * @param itemCount nombre d'items à générer.
+	 * @return nombre d'items écrits par taille (l'indice correspond à la taille de l'item).
+	 * @throws IOException si le fichier ne peut être écrit.
+	 */
+	public long[] write(final Path file, final long itemCount) throws IOException {
+		Assert.notNull(file);
+		long[] returnValue = new long[Constants.MAX_ITEM_SIZE + 1];
+		SplittableRandom randomizer = new SplittableRandom(this.seed);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+		int mask = TABLE_SIZE - 1;
+		int shift = Integer.numberOfTrailingZeros(TABLE_SIZE);
+
+		try (FileChannel channel = FileChannel.open(file,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			long remaining = itemCount;
+			while (remaining > 0) {
+				int chunk = (int) Math.min(remaining, WRITE_BUFFER_SIZE);
+				long bits = 0;
+				for (int i = 0; i < chunk; i++) {
+					// un long aléatoire fournit plusieurs tirages
+					if (i % DRAWS_PER_LONG == 0) {
+						bits = randomizer.nextLong();
+					}
+					byte oneDigit = this.table[(int) bits & mask];
+					bits >>>= shift;
+					buffer.put(oneDigit);
+					returnValue[oneDigit - '0']++;
+				}
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				buffer.clear();
+				remaining -= chunk;
+			}
+		}
+		return returnValue;
+	}
+}